@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the download progress channel compared to the channel it wraps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ByteChannelBenchmark {
+
+	@Param({"8388608"})
+	private int size;
+
+	@Param({"8192", "65536"})
+	private int bufferSize;
+
+	private byte[] data;
+	private ByteBuffer buffer;
+
+	private MethodHandle consumerChannel;
+	private final IntConsumer progress = p -> {};
+
+	@Setup(Level.Trial)
+	public void setup() throws Throwable {
+		data = new byte[size];
+		new Random(size).nextBytes(data);
+
+		buffer = ByteBuffer.allocateDirect(bufferSize);
+		consumerChannel = Launcher.constructor("ReadableConsumerByteChannel", ReadableByteChannel.class, int.class, IntConsumer.class);
+	}
+
+	@Benchmark
+	public long plainChannel() throws Exception {
+		return readAll(Channels.newChannel(new ByteArrayInputStream(data)));
+	}
+
+	@Benchmark
+	public long consumerChannel() throws Throwable {
+		return readAll((ReadableByteChannel) consumerChannel.invoke(Channels.newChannel(new ByteArrayInputStream(data)), size, progress));
+	}
+
+	private long readAll(ReadableByteChannel channel) throws java.io.IOException {
+		long total = 0;
+		try (channel) {
+			int read;
+			while ((read = channel.read(buffer)) != -1) {
+				total += read;
+				buffer.clear();
+			}
+		}
+		return total;
+	}
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Access to the private members of 'AtsLauncher'.
+ * <p>
+ * The launcher is a single source file in the default package, so it can not be imported by the benchmarks classes.
+ */
+final class Launcher {
+
+	private static final String LAUNCHER_CLASS = "AtsLauncher";
+
+	private Launcher() {
+	}
+
+	static Class<?> type(String nestedClass) throws ClassNotFoundException {
+		return Class.forName(nestedClass == null ? LAUNCHER_CLASS : LAUNCHER_CLASS + "$" + nestedClass);
+	}
+
+	static MethodHandle method(String nestedClass, String name, Class<?>... parameterTypes) throws ReflectiveOperationException {
+		final Method method = type(nestedClass).getDeclaredMethod(name, parameterTypes);
+		method.setAccessible(true);
+		return MethodHandles.lookup().unreflect(method);
+	}
+
+	static MethodHandle constructor(String nestedClass, Class<?>... parameterTypes) throws ReflectiveOperationException {
+		final Constructor<?> constructor = type(nestedClass).getDeclaredConstructor(parameterTypes);
+		constructor.setAccessible(true);
+		return MethodHandles.lookup().unreflectConstructor(constructor);
+	}
+
+	static Object getField(String name) throws ReflectiveOperationException {
+		final Field field = type(null).getDeclaredField(name);
+		field.setAccessible(true);
+		return field.get(null);
+	}
+
+	static void setField(String name, Object value) throws ReflectiveOperationException {
+		final Field field = type(null).getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(null, value);
+	}
+
+	/**
+	 * Launcher logs are written to the standard output, they are discarded during measurements.
+	 */
+	static PrintStream silence() {
+		final PrintStream out = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		return out;
+	}
+
+	static void deleteDirectory(Path directory) throws IOException {
+		if (Files.exists(directory)) {
+			Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path path, BasicFileAttributes basicFileAttributes) throws IOException {
+					Files.delete(path);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(Path directory, IOException ioException) throws IOException {
+					Files.delete(directory);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+	}
+}
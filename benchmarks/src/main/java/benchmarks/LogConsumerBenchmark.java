@@ -0,0 +1,68 @@
+package benchmarks;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TestNG output lines rewriting, alone and through the launcher log pipeline writing to a discarded standard output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LogConsumerBenchmark {
+
+	@Param({
+		"[main] INFO org.testng.internal.Utils - [TestNG] Running: /ats/project/src/exec/suite.xml",
+		"Warning: [org.testng.ITest] The test method firefox_ok.testMain did not return a test name",
+		"2021-04-07 17:58:46 | firefox_param_prem | channel-start -> firefox_param_prem_channel -> firefox"})
+	private String line;
+
+	private MethodHandle rewrite;
+	private Consumer<String> consumer;
+	private MethodHandle flush;
+	private PrintStream out;
+
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Trial)
+	public void setup() throws Throwable {
+		rewrite = Launcher.method("TestNGLogConsumer", "rewrite", String.class);
+		consumer = (Consumer<String>) Launcher.constructor("TestNGLogConsumer").invoke();
+		flush = Launcher.method("LogPipeline", "flush").bindTo(Launcher.getField("LOG_PIPELINE"));
+		out = Launcher.silence();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Throwable {
+		flush.invoke();
+		System.setOut(out);
+	}
+
+	@Benchmark
+	public String rewrite() throws Throwable {
+		return (String) rewrite.invoke(line);
+	}
+
+	@Benchmark
+	public void accept() {
+		consumer.accept(line);
+	}
+}
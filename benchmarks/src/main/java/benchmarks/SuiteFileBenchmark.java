@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Temporary suite file written from an 'atsListScripts' list, the suite content is streamed to a discarded writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SuiteFileBenchmark {
+
+	@Param({"10000"})
+	private int scripts;
+
+	private String[] atsScripts;
+	private MethodHandle addScriptToSuiteFile;
+
+	@Setup(Level.Trial)
+	public void setup() throws Throwable {
+		atsScripts = new String[scripts];
+		for (int i = 0; i < scripts; i++) {
+			atsScripts[i] = "folder_" + (i % 50) + "/sub_" + (i % 7) + "/script_" + i + ".ats";
+		}
+
+		addScriptToSuiteFile = Launcher.method(null, "addScriptToSuiteFile", Appendable.class, String.class);
+	}
+
+	@Benchmark
+	public void tempSuite() throws Throwable {
+
+		try (BufferedWriter writer = new BufferedWriter(Writer.nullWriter())) {
+			writer.append("<!DOCTYPE suite SYSTEM \"https://testng.org/testng-1.0.dtd\">\n");
+			writer.append("<suite name=\"tempSuite\" verbose=\"0\">\n<test name=\"testMain\" preserve-order=\"true\">\n<classes>\n");
+
+			for (String script : atsScripts) {
+				addScriptToSuiteFile.invoke(writer, script);
+			}
+
+			writer.append("</classes>\n</test></suite>\n");
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 'unzipFolder' on a synthetic archive, half of each file content is random data and half is compressible text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnzipFolderBenchmark {
+
+	@Param({"500"})
+	private int files;
+
+	@Param({"4096", "262144"})
+	private int fileSize;
+
+	private Path folder;
+	private Path archive;
+	private Path target;
+
+	private MethodHandle unzipFolder;
+	private PrintStream out;
+
+	@Setup(Level.Trial)
+	public void setup() throws Throwable {
+
+		folder = Files.createTempDirectory("unzip-benchmark");
+		archive = folder.resolve("archive.zip");
+		target = folder.resolve("target");
+
+		final Random random = new Random(files + fileSize);
+		final byte[] data = new byte[fileSize];
+
+		try (OutputStream os = Files.newOutputStream(archive); ZipOutputStream zip = new ZipOutputStream(os)) {
+			for (int i = 0; i < files; i++) {
+				random.nextBytes(data);
+				for (int j = data.length / 2; j < data.length; j++) {
+					data[j] = (byte) ('a' + j % 26);
+				}
+
+				zip.putNextEntry(new ZipEntry("folder-" + (i % 20) + "/file-" + i + ".bin"));
+				zip.write(data);
+				zip.closeEntry();
+			}
+		}
+
+		unzipFolder = Launcher.method(null, "unzipFolder", Path.class, Path.class);
+		out = Launcher.silence();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		System.setOut(out);
+		Launcher.deleteDirectory(folder);
+	}
+
+	@Benchmark
+	public void unzipFolder() throws Throwable {
+		unzipFolder.invoke(archive, target);
+	}
+}
@@ -0,0 +1,118 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.module.ModuleDescriptor.Version;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * System driver version search in a releases folder index.
+ * <p>
+ * 'lastVersionUrl' calls 'getLastVersionUrl' with the index already in the launcher metadata cache, so no server is contacted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VersionParsingBenchmark {
+
+	private static final String FOLDER_URL = "https://actiontestscript.org/releases/ats-drivers/linux/system";
+
+	@Param({"300"})
+	private int versions;
+
+	private Path cacheFolder;
+	private String index;
+
+	private Pattern versionPattern;
+	private MethodHandle getLastVersionUrl;
+	private PrintStream out;
+
+	@Setup(Level.Trial)
+	public void setup() throws Throwable {
+
+		final StringBuilder builder = new StringBuilder("<html><head><title>Index of /ats-drivers/linux/system</title></head><body><pre>\n");
+		for (int i = 0; i < versions; i++) {
+			builder.append("<a href=\"").append(i / 100 + 1).append('.').append(i / 10 % 10).append('.').append(i % 10).append(".tgz\">")
+			.append(i / 100 + 1).append('.').append(i / 10 % 10).append('.').append(i % 10).append(".tgz</a>   07-Apr-2021 17:58   12M\n");
+		}
+		index = builder.append("</pre></body></html>\n").toString();
+
+		cacheFolder = Files.createTempDirectory("version-benchmark");
+		Launcher.setField("atsCacheInstall", cacheFolder.toString());
+
+		final byte[] hash = MessageDigest.getInstance("SHA-256").digest(FOLDER_URL.getBytes(StandardCharsets.UTF_8));
+		final StringBuilder key = new StringBuilder();
+		for (int i = 0; i < 8; i++) {
+			key.append(String.format("%02x", hash[i]));
+		}
+
+		final Properties cache = new Properties();
+		cache.setProperty("url", FOLDER_URL);
+		cache.setProperty("body", index);
+		cache.setProperty("fetched", String.valueOf(System.currentTimeMillis()));
+
+		final Path cacheFile = cacheFolder.resolve("metadata").resolve(key + ".properties");
+		Files.createDirectories(cacheFile.getParent());
+		try (OutputStream os = Files.newOutputStream(cacheFile)) {
+			cache.store(os, null);
+		}
+
+		versionPattern = (Pattern) Launcher.getField("SYS_VERSION_PATTERN");
+		getLastVersionUrl = Launcher.method(null, "getLastVersionUrl", String.class);
+		out = Launcher.silence();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		System.setOut(out);
+		Launcher.deleteDirectory(cacheFolder);
+	}
+
+	@Benchmark
+	public Version versionPattern() {
+
+		final List<String> found = new ArrayList<String>();
+
+		final Matcher matcher = versionPattern.matcher(index.replace("\n", ""));
+		int start = 0;
+		while (matcher.find(start)) {
+			found.add(matcher.group(1));
+			start = matcher.end();
+		}
+
+		return found.stream().map(Version::parse).sorted(Collections.reverseOrder()).findFirst().get();
+	}
+
+	@Benchmark
+	public String lastVersionUrl() throws Throwable {
+		return (String) getLastVersionUrl.invoke(FOLDER_URL);
+	}
+}
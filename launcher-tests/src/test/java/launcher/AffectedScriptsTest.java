@@ -0,0 +1,94 @@
+package launcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * 'getAffectedScripts' maps the changed files to the changed scripts and to all the scripts calling them.
+ */
+public class AffectedScriptsTest {
+
+	private MethodHandle getAffectedScripts;
+	private MethodHandle newScriptIndex;
+
+	private Object index;
+
+	@BeforeClass
+	public void setupClass() throws Exception {
+		getAffectedScripts = Launcher.method(null, "getAffectedScripts", Launcher.type("ScriptIndex"), Set.class);
+		newScriptIndex = Launcher.constructor("ScriptIndex", Properties.class);
+	}
+
+	@BeforeMethod
+	public void setup() throws Throwable {
+
+		index = newScriptIndex.invoke(new Properties());
+
+		addScript("login", "calls");
+		addScript("checkout.pay", "calls", "login");
+		addScript("checkout.refund", "calls", "checkout.pay");
+		addScript("report", "calls");
+
+		addScript("report", "assets", "data/report.csv");
+		addScript("checkout.refund", "env", "shopUrl");
+		addScript("login", "env");
+	}
+
+	@Test
+	public void changedScriptAffectsItsCallers() throws Throwable {
+		assertEquals(getAffected("src/main/ats/login.ats"), set("login", "checkout.pay", "checkout.refund"));
+		assertEquals(getAffected("src/main/ats/checkout/refund.ats"), set("checkout.refund"));
+	}
+
+	@Test
+	public void changedJavaScriptAffectsItsCallers() throws Throwable {
+		assertEquals(getAffected("src/main/java/checkout/pay.java"), set("checkout.pay", "checkout.refund"));
+	}
+
+	@Test
+	public void changedAssetAffectsScriptsUsingIt() throws Throwable {
+		assertEquals(getAffected("src/assets/data/report.csv"), set("report"));
+		assertEquals(getAffected("src/assets/resources/data/report.csv"), set("report"));
+		assertEquals(getAffected("src/assets/data/other.csv"), set());
+	}
+
+	@Test
+	public void changedExecutionFileAffectsScriptsUsingEnvironment() throws Throwable {
+		assertEquals(getAffected("src/exec/suite.xml"), set("checkout.refund"));
+	}
+
+	@Test
+	public void projectFileAffectsAllScripts() throws Throwable {
+		assertNull(getAffected("src/main/ats/login.ats", "pom.xml"));
+		assertNull(getAffected(".atsProjectProperties"));
+	}
+
+	@Test
+	public void removedOrUnrelatedFilesAffectNoScript() throws Throwable {
+		assertEquals(getAffected("src/main/ats/removed.ats", "README.md"), set());
+	}
+
+	private Object getAffected(String... changed) throws Throwable {
+		return getAffectedScripts.invoke(index, set(changed));
+	}
+
+	private static Set<String> set(String... values) {
+		return new TreeSet<String>(Arrays.asList(values));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addScript(String script, String field, String... values) throws Exception {
+		((Map<String, Set<String>>) Launcher.getField(index, field)).put(script, set(values));
+	}
+}
@@ -0,0 +1,172 @@
+package launcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * 'importBundle' installs the tools folders of a bundle archive, it rejects the folders and links resolved outside of the tools folder
+ * and leaves no staging folder when the import fails.
+ */
+public class ImportBundleTest {
+
+	private static final String TOOL_FOLDER = "tools/jdk-17";
+	private static final String JAVA = "#!/bin/sh";
+
+	private MethodHandle importBundle;
+
+	private Path folder;
+	private Path bundle;
+	private Path tools;
+
+	private Object atsToolsFolder;
+	private Object atsCacheInstall;
+
+	@BeforeClass
+	public void setupClass() throws Exception {
+		importBundle = Launcher.method(null, "importBundle", Path.class, boolean.class);
+	}
+
+	@BeforeMethod
+	public void setup() throws Exception {
+
+		folder = Files.createTempDirectory("bundle-test");
+		bundle = folder.resolve("ats-bundle.zip");
+		tools = folder.resolve("tools");
+
+		atsToolsFolder = Launcher.getField(null, "atsToolsFolder");
+		atsCacheInstall = Launcher.getField(null, "atsCacheInstall");
+
+		Launcher.setField("atsToolsFolder", tools.toString());
+		Launcher.setField("atsCacheInstall", folder.resolve("cache").toString());
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() throws Exception {
+		Launcher.setField("atsToolsFolder", atsToolsFolder);
+		Launcher.setField("atsCacheInstall", atsCacheInstall);
+		Launcher.deleteDirectory(folder);
+	}
+
+	@Test
+	public void installsFilesAndLinks() throws Throwable {
+
+		final Map<String, String> index = getIndex("jdk", TOOL_FOLDER);
+		index.put("link." + TOOL_FOLDER + "/bin/current", "java");
+		writeBundle(index);
+
+		importBundle.invoke(bundle, true);
+
+		final Path jdk = tools.resolve("jdk-17");
+		assertEquals(Files.readString(jdk.resolve("bin/java")), JAVA);
+		assertTrue(Files.isExecutable(jdk.resolve("bin/java")));
+		assertEquals(Files.readSymbolicLink(jdk.resolve("bin/current")), Paths.get("java"));
+		assertFalse(Files.exists(tools.resolve("jdk-17.import")));
+	}
+
+	@Test
+	public void rejectsLinkOutsideToolFolder() throws Throwable {
+
+		final Map<String, String> index = getIndex("jdk", TOOL_FOLDER);
+		index.put("link." + TOOL_FOLDER + "/bin/outside", "../../outside");
+		writeBundle(index);
+
+		assertRejected("Bad bundle entry link");
+	}
+
+	@Test
+	public void rejectsAbsoluteLink() throws Throwable {
+
+		final Map<String, String> index = getIndex("jdk", TOOL_FOLDER);
+		index.put("link." + TOOL_FOLDER + "/bin/etc", "/etc");
+		writeBundle(index);
+
+		assertRejected("Bad bundle entry link");
+	}
+
+	@Test
+	public void rejectsFolderOutsideTools() throws Throwable {
+		writeBundle(getIndex("jdk", "tools/../outside"));
+		assertRejected("Bad zip entry");
+		assertFalse(Files.exists(folder.resolve("outside.import")));
+	}
+
+	@Test
+	public void rejectsChecksumError() throws Throwable {
+
+		final Map<String, String> index = getIndex("jdk", TOOL_FOLDER);
+		index.put("file." + TOOL_FOLDER + "/bin/java", "00:" + JAVA.length() + ":755");
+		writeBundle(index);
+
+		assertRejected("Import error on bundle");
+	}
+
+	private void assertRejected(String message) throws IOException {
+
+		final IOException e = expectThrows(IOException.class, () -> importBundle.invoke(bundle, true));
+		assertTrue(e.getMessage().startsWith(message), e.getMessage());
+
+		assertFalse(Files.exists(folder.resolve("outside")));
+		assertFalse(Files.exists(tools.resolve("jdk-17")));
+		assertFalse(Files.exists(tools.resolve("jdk-17.import")));
+	}
+
+	private Map<String, String> getIndex(String tool, String toolFolder) throws Exception {
+
+		final Map<String, String> index = new LinkedHashMap<String, String>();
+		index.put("@version", "1");
+		index.put("os", (String) Launcher.getField(null, "operatingSystem"));
+		index.put("atsVersion", "3.0.0");
+		index.put("folder." + tool, toolFolder);
+
+		final byte[] java = JAVA.getBytes(StandardCharsets.UTF_8);
+		final StringBuilder hash = new StringBuilder();
+		for (byte b : MessageDigest.getInstance("SHA-256").digest(java)) {
+			hash.append(String.format("%02x", b));
+		}
+		index.put("file." + toolFolder + "/bin/java", hash + ":" + java.length + ":755");
+
+		return index;
+	}
+
+	private void writeBundle(Map<String, String> index) throws IOException {
+
+		final Properties properties = new Properties();
+		properties.putAll(index);
+
+		try (OutputStream os = Files.newOutputStream(bundle); ZipOutputStream zip = new ZipOutputStream(os)) {
+
+			zip.putNextEntry(new ZipEntry("bundle.index"));
+			properties.store(zip, null);
+			zip.closeEntry();
+
+			for (String key : index.keySet()) {
+				if (key.startsWith("file.")) {
+					zip.putNextEntry(new ZipEntry(key.substring("file.".length())));
+					zip.write(JAVA.getBytes(StandardCharsets.UTF_8));
+					zip.closeEntry();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package launcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * 'mergeShardsResults' merges the outputs of the shards or workers runs into the ATS output folder.
+ */
+public class MergeShardsResultsTest {
+
+	private MethodHandle mergeShardsResults;
+	private MethodHandle getSuiteDocumentBuilder;
+
+	private Path atsOutput;
+	private List<Path> runsOutputs;
+
+	@BeforeClass
+	public void setupClass() throws Exception {
+		mergeShardsResults = Launcher.method(null, "mergeShardsResults", Path.class, List.class);
+		getSuiteDocumentBuilder = Launcher.method(null, "getSuiteDocumentBuilder");
+	}
+
+	@BeforeMethod
+	public void setup() throws IOException {
+
+		atsOutput = Files.createTempDirectory("merge-test");
+
+		final Path run1 = atsOutput.resolve("run-1");
+		writeResults(run1, 3, 2, 1, 0, "suite-a");
+		writeFailed(run1, "suite-a", "checkout");
+		Files.writeString(run1.resolve("index.html"), "run-1");
+		Files.createDirectories(run1.resolve("checkout"));
+		Files.writeString(run1.resolve("checkout/pay.xml"), "pay");
+
+		final Path run2 = atsOutput.resolve("run-2");
+		writeResults(run2, 2, 1, 0, 1, "suite-b");
+		writeFailed(run2, "suite-b", "checkout", "login");
+		Files.writeString(run2.resolve("index.html"), "run-2");
+		Files.createDirectories(run2.resolve("login"));
+		Files.writeString(run2.resolve("login/login.xml"), "login");
+
+		runsOutputs = Arrays.asList(run1, run2, atsOutput.resolve("run-3"));
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() throws IOException {
+		Launcher.deleteDirectory(atsOutput);
+	}
+
+	@Test
+	public void sumsCountersAndKeepsAllSuites() throws Throwable {
+
+		mergeShardsResults.invoke(atsOutput, runsOutputs);
+
+		final Element results = parse(atsOutput.resolve("testng-results.xml"));
+		assertEquals(results.getAttribute("total"), "5");
+		assertEquals(results.getAttribute("passed"), "3");
+		assertEquals(results.getAttribute("failed"), "1");
+		assertEquals(results.getAttribute("skipped"), "1");
+		assertEquals(results.getAttribute("ignored"), "0");
+
+		assertEquals(getNames(results.getElementsByTagName("suite")), Arrays.asList("suite-a", "suite-b"));
+		assertEquals(results.getElementsByTagName("reporter-output").getLength(), 1);
+	}
+
+	@Test
+	public void movesReportsAndRenamesConflicts() throws Throwable {
+
+		mergeShardsResults.invoke(atsOutput, runsOutputs);
+
+		assertEquals(Files.readString(atsOutput.resolve("index.html")), "run-1");
+		assertEquals(Files.readString(atsOutput.resolve("index-run-2.html")), "run-2");
+		assertEquals(Files.readString(atsOutput.resolve("checkout/pay.xml")), "pay");
+		assertEquals(Files.readString(atsOutput.resolve("login/login.xml")), "login");
+
+		for (Path runOutput : runsOutputs) {
+			assertFalse(Files.exists(runOutput), runOutput.toString());
+		}
+	}
+
+	@Test
+	public void mergesFailedSuitesWithUniqueTestsNames() throws Throwable {
+
+		mergeShardsResults.invoke(atsOutput, runsOutputs);
+
+		final Element failed = parse(atsOutput.resolve("testng-failed.xml"));
+		assertEquals(getNames(failed.getElementsByTagName("test")), Arrays.asList("checkout", "checkout [run-2]", "login"));
+		assertFalse(Files.exists(atsOutput.resolve("testng-failed-run-2.xml")));
+	}
+
+	@Test
+	public void mergesRunsWithoutResults() throws Throwable {
+
+		Files.delete(atsOutput.resolve("run-2/testng-results.xml"));
+		mergeShardsResults.invoke(atsOutput, runsOutputs);
+
+		final Element results = parse(atsOutput.resolve("testng-results.xml"));
+		assertEquals(results.getAttribute("total"), "3");
+		assertEquals(getNames(results.getElementsByTagName("suite")), Arrays.asList("suite-a"));
+		assertTrue(Files.exists(atsOutput.resolve("index-run-2.html")));
+	}
+
+	/**
+	 * The merged failed suite declares the TestNG doctype, the launcher document builder does not load it.
+	 */
+	private Element parse(Path file) throws Throwable {
+		return ((DocumentBuilder) getSuiteDocumentBuilder.invoke()).parse(file.toFile()).getDocumentElement();
+	}
+
+	private static List<String> getNames(NodeList elements) {
+		final List<String> names = new ArrayList<String>();
+		for (int i = 0; i < elements.getLength(); i++) {
+			names.add(((Element) elements.item(i)).getAttribute("name"));
+		}
+		return names;
+	}
+
+	private static void writeResults(Path runOutput, int total, int passed, int failed, int skipped, String suite) throws IOException {
+		Files.createDirectories(runOutput);
+		Files.writeString(runOutput.resolve("testng-results.xml"), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<testng-results ignored=\"0\" total=\"" + total + "\" passed=\"" + passed + "\" failed=\"" + failed + "\" skipped=\"" + skipped + "\">\n"
+				+ "<reporter-output/>\n"
+				+ "<suite name=\"" + suite + "\"><test name=\"" + suite + "\"/></suite>\n"
+				+ "</testng-results>\n");
+	}
+
+	private static void writeFailed(Path runOutput, String suite, String... tests) throws IOException {
+		final StringBuilder failed = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<suite name=\"Failed suite [" + suite + "]\">\n");
+		for (String test : tests) {
+			failed.append("<test name=\"").append(test).append("\"><classes><class name=\"").append(test).append("\"/></classes></test>\n");
+		}
+		Files.writeString(runOutput.resolve("testng-failed.xml"), failed.append("</suite>\n").toString());
+	}
+}
@@ -0,0 +1,127 @@
+package launcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * 'getScriptCriterion' and 'selectScripts' select the scripts of the catalogue by path glob, tag or header field.
+ */
+public class ScriptCriterionTest {
+
+	private MethodHandle getScriptCriterion;
+	private MethodHandle selectScripts;
+	private MethodHandle newScriptIndex;
+
+	private Object index;
+
+	@BeforeClass
+	public void setupClass() throws Exception {
+		final Class<?> scriptIndex = Launcher.type("ScriptIndex");
+		getScriptCriterion = Launcher.method(null, "getScriptCriterion", scriptIndex, String.class);
+		selectScripts = Launcher.method(null, "selectScripts", scriptIndex, String.class);
+		newScriptIndex = Launcher.constructor("ScriptIndex", Properties.class);
+	}
+
+	@BeforeMethod
+	public void setup() throws Throwable {
+
+		index = newScriptIndex.invoke(new Properties());
+
+		addScript("login", "Jane Doe", "smoke");
+		addScript("checkout.pay", "John Smith", "smoke", "payment");
+		addScript("checkout.refund", "John Smith", "payment");
+		addScript("checkout.sub.coupon", null);
+	}
+
+	@Test
+	public void pathGlobMatchesOnePackageLevel() throws Throwable {
+
+		final Predicate<String> criterion = getCriterion("checkout/*");
+
+		assertTrue(criterion.test("checkout.pay"));
+		assertTrue(criterion.test("checkout.refund"));
+		assertFalse(criterion.test("checkout.sub.coupon"));
+		assertFalse(criterion.test("login"));
+	}
+
+	@Test
+	public void pathDoubleStarMatchesSubPackages() throws Throwable {
+
+		final Predicate<String> criterion = getCriterion("checkout/**");
+
+		assertTrue(criterion.test("checkout.pay"));
+		assertTrue(criterion.test("checkout.sub.coupon"));
+		assertFalse(criterion.test("login"));
+	}
+
+	@Test
+	public void pathIgnoresExtensionAndSeparators() throws Throwable {
+		assertTrue(getCriterion("/checkout\\pa?.ats").test("checkout.pay"));
+		assertFalse(getCriterion("/checkout\\pa?.ats").test("checkout.sub.coupon"));
+	}
+
+	@Test
+	public void tagMatchesAnyScriptTag() throws Throwable {
+
+		final Predicate<String> criterion = getCriterion("tag:PAY*");
+
+		assertTrue(criterion.test("checkout.pay"));
+		assertTrue(criterion.test("checkout.refund"));
+		assertFalse(criterion.test("login"));
+		assertFalse(criterion.test("checkout.sub.coupon"));
+	}
+
+	@Test
+	public void headerFieldMatchesIgnoringCase() throws Throwable {
+
+		final Predicate<String> criterion = getCriterion("author:john*");
+
+		assertTrue(criterion.test("checkout.pay"));
+		assertFalse(criterion.test("login"));
+		assertFalse(criterion.test("checkout.sub.coupon"));
+	}
+
+	@Test
+	public void selectsNamesAndCriteriaIntersections() throws Throwable {
+		assertEquals(selectScripts.invoke(index, "login, tag:smoke&checkout/*,checkout/re*,login"), "login,checkout.pay,checkout.refund");
+	}
+
+	@Test
+	public void keepsScriptNamesWithoutCriteria() throws Throwable {
+		assertEquals(selectScripts.invoke(index, "unknown,checkout.pay"), "unknown,checkout.pay");
+	}
+
+	@SuppressWarnings("unchecked")
+	private Predicate<String> getCriterion(String criterion) throws Throwable {
+		return (Predicate<String>) getScriptCriterion.invoke(index, criterion);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addScript(String script, String author, String... tags) throws Exception {
+
+		final Map<String, String> header = new TreeMap<String, String>();
+		if (author != null) {
+			header.put("author", author);
+		}
+		((Map<String, Map<String, String>>) Launcher.getField(index, "headers")).put(script, header);
+
+		final Set<String> scriptTags = new TreeSet<String>();
+		for (String tag : tags) {
+			scriptTags.add(tag);
+		}
+		((Map<String, Set<String>>) Launcher.getField(index, "tags")).put(script, scriptTags);
+	}
+}
@@ -0,0 +1,38 @@
+package launcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+import java.lang.invoke.MethodHandle;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * 'getTokenProof' answers the coordinator challenge with an HMAC-SHA256 of the nonce, the token itself is never sent.
+ */
+public class TokenProofTest {
+
+	private MethodHandle getTokenProof;
+
+	@BeforeClass
+	public void setupClass() throws Exception {
+		getTokenProof = Launcher.method(null, "getTokenProof", String.class, String.class);
+	}
+
+	/**
+	 * RFC 4231, test case 2.
+	 */
+	@Test
+	public void isHmacSha256OfNonce() throws Throwable {
+		assertEquals(getTokenProof.invoke("Jefe", "what do ya want for nothing?"), "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843");
+	}
+
+	@Test
+	public void dependsOnTokenAndNonce() throws Throwable {
+		final Object proof = getTokenProof.invoke("token", "nonce");
+		assertEquals(getTokenProof.invoke("token", "nonce"), proof);
+		assertNotEquals(getTokenProof.invoke("other", "nonce"), proof);
+		assertNotEquals(getTokenProof.invoke("token", "other"), proof);
+	}
+}
@@ -0,0 +1,190 @@
+package launcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * 'untarStream' extracts the entries of a gzip tar stream and rejects the entries and links resolved outside of the target folder.
+ */
+public class UntarStreamTest {
+
+	private MethodHandle untarStream;
+
+	private Path folder;
+	private Path target;
+
+	@BeforeClass
+	public void setupClass() throws Exception {
+		untarStream = Launcher.method(null, "untarStream", InputStream.class, Path.class);
+	}
+
+	@BeforeMethod
+	public void setup() throws IOException {
+		folder = Files.createTempDirectory("untar-test");
+		target = folder.resolve("target");
+		Files.createDirectories(target);
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() throws IOException {
+		Launcher.deleteDirectory(folder);
+	}
+
+	@Test
+	public void extractsFilesAndLinksInsideTarget() throws Throwable {
+
+		final Tar tar = new Tar()
+				.entry("tools/", '5', "", null)
+				.entry("tools/bin/run.sh", '0', "", "echo run")
+				.entry("tools/current", '2', "bin/run.sh", null)
+				.entry("tools/bin/copy.sh", '1', "tools/bin/run.sh", null);
+
+		untarStream.invoke(tar.toStream(), target);
+
+		assertEquals(Files.readString(target.resolve("tools/bin/run.sh")), "echo run");
+		assertEquals(Files.readSymbolicLink(target.resolve("tools/current")), Paths.get("bin/run.sh"));
+		assertEquals(Files.readString(target.resolve("tools/current")), "echo run");
+		assertTrue(Files.isSameFile(target.resolve("tools/bin/copy.sh"), target.resolve("tools/bin/run.sh")));
+	}
+
+	@Test
+	public void extractsGnuLongNames() throws Throwable {
+
+		final String name = "tools/" + "long-folder-name/".repeat(8) + "file.txt";
+		untarStream.invoke(new Tar().entry("././@LongLink", 'L', "", name).entry(name.substring(0, 99), '0', "", "content").toStream(), target);
+
+		assertEquals(Files.readString(target.resolve(name)), "content");
+	}
+
+	@Test
+	public void rejectsParentEntry() throws Throwable {
+		assertRejected(new Tar().entry("../outside.txt", '0', "", "content"));
+		assertFalse(Files.exists(folder.resolve("outside.txt")));
+	}
+
+	@Test
+	public void rejectsAbsoluteEntry() throws Throwable {
+		assertRejected(new Tar().entry(folder.resolve("outside.txt").toString(), '0', "", "content"));
+		assertFalse(Files.exists(folder.resolve("outside.txt")));
+	}
+
+	@Test
+	public void rejectsParentLongName() throws Throwable {
+		assertRejected(new Tar().entry("././@LongLink", 'L', "", "tools/../../outside.txt").entry("tools/file.txt", '0', "", "content"));
+		assertFalse(Files.exists(folder.resolve("outside.txt")));
+	}
+
+	@Test
+	public void rejectsParentPaxPath() throws Throwable {
+		assertRejected(new Tar().entry("PaxHeaders/file.txt", 'x', "", Tar.paxRecord("path", "../outside.txt")).entry("tools/file.txt", '0', "", "content"));
+		assertFalse(Files.exists(folder.resolve("outside.txt")));
+	}
+
+	@Test
+	public void rejectsSymbolicLinkOutsideTarget() throws Throwable {
+		assertRejected(new Tar().entry("tools/outside", '2', "../../outside", null));
+		assertFalse(Files.exists(target.resolve("tools/outside"), LinkOption.NOFOLLOW_LINKS));
+	}
+
+	@Test
+	public void rejectsAbsoluteSymbolicLink() throws Throwable {
+		assertRejected(new Tar().entry("tools/etc", '2', "/etc", null));
+		assertFalse(Files.exists(target.resolve("tools/etc"), LinkOption.NOFOLLOW_LINKS));
+	}
+
+	@Test
+	public void rejectsHardLinkOutsideTarget() throws Throwable {
+
+		Files.writeString(folder.resolve("outside.txt"), "secret");
+		assertRejected(new Tar().entry("tools/hard.txt", '1', "../outside.txt", null));
+
+		assertFalse(Files.exists(target.resolve("tools/hard.txt")));
+	}
+
+	private void assertRejected(Tar tar) throws IOException {
+		final InputStream stream = tar.toStream();
+		final IOException e = expectThrows(IOException.class, () -> untarStream.invoke(stream, target));
+		assertTrue(e.getMessage().startsWith("Bad "), e.getMessage());
+	}
+
+	/**
+	 * Minimal ustar writer, entries are written in order and data is padded to tar blocks.
+	 */
+	private static class Tar {
+
+		private static final int BLOCK = 512;
+
+		private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+		private static String paxRecord(String key, String value) {
+			final String record = " " + key + "=" + value + "\n";
+			int length = record.length() + 1;
+			while (String.valueOf(length).length() + record.length() != length) {
+				length++;
+			}
+			return length + record;
+		}
+
+		private Tar entry(String name, char type, String link, String content) {
+
+			final byte[] bytes = content == null ? new byte[0] : content.getBytes(StandardCharsets.UTF_8);
+			final byte[] header = new byte[BLOCK];
+
+			put(header, 0, 100, name);
+			put(header, 100, 8, String.format("%07o", 0644));
+			put(header, 108, 8, String.format("%07o", 0));
+			put(header, 116, 8, String.format("%07o", 0));
+			put(header, 124, 12, String.format("%011o", bytes.length));
+			put(header, 136, 12, String.format("%011o", 0));
+			header[156] = (byte) type;
+			put(header, 157, 100, link);
+			put(header, 257, 6, "ustar");
+			put(header, 263, 2, "00");
+
+			long checksum = 8 * ' ';
+			for (int i = 0; i < BLOCK; i++) {
+				checksum += (i >= 148 && i < 156) ? 0 : header[i] & 0xff;
+			}
+			put(header, 148, 8, String.format("%06o", checksum) + "\0 ");
+
+			data.writeBytes(header);
+			data.writeBytes(bytes);
+			data.writeBytes(new byte[(BLOCK - bytes.length % BLOCK) % BLOCK]);
+			return this;
+		}
+
+		private InputStream toStream() throws IOException {
+
+			final ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+			try (GZIPOutputStream os = new GZIPOutputStream(gzip)) {
+				os.write(data.toByteArray());
+				os.write(new byte[BLOCK * 2]);
+			}
+			return new ByteArrayInputStream(gzip.toByteArray());
+		}
+
+		private static void put(byte[] header, int offset, int length, String value) {
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			System.arraycopy(bytes, 0, header, offset, Math.min(length, bytes.length));
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package launcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * 'unzipFolder' extracts the entries of a zip archive and rejects the archives with entries resolved outside of the target folder.
+ */
+public class UnzipFolderTest {
+
+	private MethodHandle unzipFolder;
+
+	private Path folder;
+	private Path archive;
+	private Path target;
+
+	@BeforeClass
+	public void setupClass() throws Exception {
+		unzipFolder = Launcher.method(null, "unzipFolder", Path.class, Path.class);
+	}
+
+	@BeforeMethod
+	public void setup() throws IOException {
+		folder = Files.createTempDirectory("unzip-test");
+		archive = folder.resolve("archive.zip");
+		target = folder.resolve("target");
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() throws IOException {
+		Launcher.deleteDirectory(folder);
+	}
+
+	@Test
+	public void extractsEntriesInsideTarget() throws Throwable {
+
+		writeArchive("tools/", null, "tools/bin/run.sh", "echo run", "tools/lib/a.jar", "a", "tools/lib/b.jar", "b");
+		unzipFolder.invoke(archive, target);
+
+		assertEquals(Files.readString(target.resolve("tools/bin/run.sh")), "echo run");
+		assertEquals(Files.readString(target.resolve("tools/lib/a.jar")), "a");
+		assertEquals(Files.readString(target.resolve("tools/lib/b.jar")), "b");
+	}
+
+	@Test
+	public void rejectsParentEntry() throws Throwable {
+		writeArchive("tools/file.txt", "content", "tools/../../outside.txt", "content");
+		assertRejected();
+	}
+
+	@Test
+	public void rejectsAbsoluteEntry() throws Throwable {
+		writeArchive("tools/file.txt", "content", folder.resolve("outside.txt").toString(), "content");
+		assertRejected();
+	}
+
+	/**
+	 * Entries are all checked before the first file is written, a bad entry leaves the target folder empty.
+	 */
+	private void assertRejected() throws IOException {
+
+		final IOException e = expectThrows(IOException.class, () -> unzipFolder.invoke(archive, target));
+		assertTrue(e.getMessage().startsWith("Bad zip entry"), e.getMessage());
+
+		assertFalse(Files.exists(folder.resolve("outside.txt")));
+		assertFalse(Files.exists(target));
+	}
+
+	private void writeArchive(String... entries) throws IOException {
+		try (OutputStream os = Files.newOutputStream(archive); ZipOutputStream zip = new ZipOutputStream(os)) {
+			for (int i = 0; i < entries.length; i += 2) {
+				zip.putNextEntry(new ZipEntry(entries[i]));
+				if (entries[i + 1] != null) {
+					zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+				}
+				zip.closeEntry();
+			}
+		}
+	}
+}